@@ -16,13 +16,13 @@ public class Client extends ValidateIPv4 {
     // Stores the count of remaining ships of each size.
     private final Map<Integer, Integer> remainingShips;
     // Keeps track of positions already shot at to prevent duplicate shots.
-    private final Set<String> shotPositions;
+    private final ShotTracker shotPositions;
 
     // Constructor to initialize the game board and other data structures.
     public Client() {
         this.board = new char[BOARD_SIZE][BOARD_SIZE];
         this.remainingShips = new HashMap<>();
-        this.shotPositions = new HashSet<>();
+        this.shotPositions = new ShotTracker(BOARD_SIZE, BOARD_SIZE);
         initializeBoard();
     }
 
@@ -33,6 +33,19 @@ public class Client extends ValidateIPv4 {
         }
     }
 
+    // Clears the board, remaining ships and fired shots for a new game.
+    private void resetGame() {
+        initializeBoard();
+        remainingShips.clear();
+        shotPositions.clear();
+    }
+
+    // Asks the user if they want to play another game on the same connection.
+    private boolean askPlayAgain(Scanner scanner) {
+        System.out.println("Play again? (y/n)");
+        return scanner.nextLine().trim().equalsIgnoreCase("y");
+    }
+
     // Displays the current state of the game board.
     private void displayBoard() {
         System.out.println("\n  0 1 2 3 4"); // Column numbers
@@ -188,17 +201,15 @@ public class Client extends ValidateIPv4 {
                     continue;
                 }
 
-                String position = row + "," + col;
                 // Prevent the user from shooting at the same coordinates twice
-                if (shotPositions.contains(position)) {
+                if (!shotPositions.record(row, col)) {
                     System.out.println(
                         "You've already shot at this position. Try different coordinates."
                     );
                     continue;
                 }
 
-                shotPositions.add(position);
-                return position;
+                return row + "," + col;
             } catch (NumberFormatException e) {
                 System.out.println(
                     "Please enter valid numbers for coordinates."
@@ -239,47 +250,78 @@ public class Client extends ValidateIPv4 {
             System.out.println("Welcome to Naval Battle!");
             System.out.println("------------------------");
 
-            // Get ship configuration from user
-            List<Integer> shipSizes = gameClient.getShipConfiguration(scanner);
-            // Send ships configuration to server
-            out.println(
-                "SHIPS:" +
-                String.join(
-                    ",",
-                    shipSizes
-                        .stream()
-                        .map(String::valueOf)
-                        .toArray(String[]::new)
-                )
-            );
-
-            System.out.println("\nGame started! The board shows:");
-            System.out.println("~ : Water");
-            System.out.println("X : Hit");
-            System.out.println("O : Miss");
-
-            // Start the main game loop.
-            while (true) {
-                gameClient.displayBoard();
+            // Play games on the same connection until the user stops.
+            boolean playing = true;
+            while (playing) {
+                // Get ship configuration from user
+                List<Integer> shipSizes = gameClient.getShipConfiguration(
+                    scanner
+                );
+                // Send ships configuration to server
+                out.println(
+                    "SHIPS:" +
+                    String.join(
+                        ",",
+                        shipSizes
+                            .stream()
+                            .map(String::valueOf)
+                            .toArray(String[]::new)
+                    )
+                );
 
-                String coordinates = gameClient.getValidCoordinates(scanner);
-                if (coordinates.equalsIgnoreCase("quit")) {
-                    out.println("quit");
+                // Wait for the server to accept the ships.
+                String reply = in.readLine();
+                if (reply == null) {
+                    System.out.println("Connection closed by the server.");
                     break;
                 }
+                if (reply.startsWith("ERROR:")) {
+                    // The connection stays open, ask for another fleet.
+                    System.out.println(reply.substring(6) + ". Try again.");
+                    gameClient.resetGame();
+                    continue;
+                }
 
-                out.println(coordinates); // Send the chosen coordinates to the server
-                String result = in.readLine(); // Get response from the server
+                System.out.println("\nGame started! The board shows:");
+                System.out.println("~ : Water");
+                System.out.println("X : Hit");
+                System.out.println("O : Miss");
 
-                // Process the shot result and check if the game is over.
-                if (
-                    gameClient.processShot(
-                        Integer.parseInt(coordinates.split(",")[0].trim()),
-                        Integer.parseInt(coordinates.split(",")[1].trim()),
-                        result
-                    )
-                ) {
-                    break;
+                // Start the main game loop.
+                while (true) {
+                    gameClient.displayBoard();
+
+                    String coordinates = gameClient.getValidCoordinates(
+                        scanner
+                    );
+                    if (coordinates.equalsIgnoreCase("quit")) {
+                        out.println("quit");
+                        playing = false;
+                        break;
+                    }
+
+                    out.println(coordinates); // Send the chosen coordinates to the server
+                    String result = in.readLine(); // Get response from the server
+
+                    // Process the shot result and check if the game is over.
+                    if (
+                        gameClient.processShot(
+                            Integer.parseInt(coordinates.split(",")[0].trim()),
+                            Integer.parseInt(coordinates.split(",")[1].trim()),
+                            result
+                        )
+                    ) {
+                        break;
+                    }
+                }
+
+                if (playing) {
+                    if (gameClient.askPlayAgain(scanner)) {
+                        gameClient.resetGame();
+                    } else {
+                        out.println("quit");
+                        playing = false;
+                    }
                 }
             }
 
@@ -0,0 +1,440 @@
+import java.io.*;
+import java.nio.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class Leaderboard {
+
+    // Number of players kept in the top-K structure.
+    private static final int TOP_SIZE = 100;
+    // Maximum number of results written to the log in one commit.
+    private static final int BATCH_SIZE = 1024;
+    // Initial number of slots of the index, always a power of two.
+    private static final int INITIAL_CAPACITY = 1 << 16;
+    // Largest number of slots whose size in bytes still fits in an int,
+    // about 16.7 million players at the maximum load of one half.
+    private static final int MAX_CAPACITY = 1 << 25;
+    // Layout of a slot in the off-heap index.
+    private static final int SLOT_BYTES = 32;
+    private static final int HASH_OFFSET = 0;
+    private static final int GAMES_OFFSET = 8;
+    private static final int BEST_OFFSET = 12;
+    private static final int SHOTS_OFFSET = 16;
+    private static final int HITS_OFFSET = 24;
+
+    // Append-only log of every completed game, replayed on startup.
+    private final File logFile;
+    private final FileOutputStream log;
+    // Length of the log up to the last fully written batch.
+    private long logLength;
+    // Queued by close() to stop the writer thread once the results before
+    // it are committed.
+    private static final GameRecord STOP = new GameRecord("", 0, 0, "", 0);
+
+    // Results waiting to be committed by the writer thread.
+    private final BlockingQueue<GameRecord> pending;
+    private final Thread writer;
+
+    // Off-heap open addressing hash index, keyed by the 64-bit hash of the
+    // player name, holding the aggregated stats of each player.
+    private ByteBuffer index;
+    private int capacity;
+    private int players;
+    // Largest capacity the index may grow to, lowered to the current one
+    // after an allocation fails so that later players fail fast.
+    private int capacityLimit = MAX_CAPACITY;
+    // Set once a full index has been reported, to avoid one line per result.
+    private boolean fullReported;
+    // Best players ordered by fewest shots to win, then most games.
+    private final TreeSet<PlayerStats> top;
+    private final Map<String, PlayerStats> topByName;
+
+    // Constructor that loads the log file and starts the writer thread.
+    public Leaderboard(File logFile) throws IOException {
+        this.logFile = logFile;
+        this.pending = new LinkedBlockingQueue<>();
+        this.index = ByteBuffer.allocateDirect(INITIAL_CAPACITY * SLOT_BYTES);
+        this.capacity = INITIAL_CAPACITY;
+        this.top = new TreeSet<>(
+            Comparator.comparingInt((PlayerStats s) -> s.bestShots)
+                .thenComparing(s -> -s.games)
+                .thenComparing(s -> s.player)
+        );
+        this.topByName = new HashMap<>();
+
+        this.logLength = replayLog();
+        this.log = new FileOutputStream(logFile, true);
+        this.writer = new Thread(this::commitLoop, "leaderboard-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    // Queues the result of a won game, the caller never waits for disk.
+    public void record(String player, int shots, int hits, String fleet) {
+        pending.offer(
+            new GameRecord(
+                player,
+                shots,
+                hits,
+                fleet,
+                System.currentTimeMillis()
+            )
+        );
+    }
+
+    // Returns the stats of a player, or null if the player has no games.
+    public synchronized PlayerStats getStats(String player) {
+        long hash = hash(player);
+        int offset = findSlot(hash) * SLOT_BYTES;
+        if (index.getLong(offset + HASH_OFFSET) != hash) {
+            return null;
+        }
+        return readStats(player, offset);
+    }
+
+    // Returns up to n best players, n is capped at the top-K size.
+    public synchronized List<PlayerStats> getTop(int n) {
+        n = Math.max(0, Math.min(n, TOP_SIZE));
+        List<PlayerStats> result = new ArrayList<>(Math.min(n, top.size()));
+        for (PlayerStats stats : top) {
+            if (result.size() >= n) {
+                break;
+            }
+            result.add(stats);
+        }
+        return result;
+    }
+
+    // Commits the pending results and stops the writer thread. The writer
+    // is not interrupted, as that would close the log's file channel.
+    public void close() throws IOException {
+        pending.offer(STOP);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.close();
+    }
+
+    // Waits for results and commits them in batches until close() is called.
+    private void commitLoop() {
+        List<GameRecord> batch = new ArrayList<>(BATCH_SIZE);
+        boolean stop = false;
+        while (!stop) {
+            try {
+                batch.add(pending.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            pending.drainTo(batch, BATCH_SIZE - 1);
+            stop = batch.remove(STOP);
+            // Report any failure and keep the writer alive, otherwise the
+            // results would pile up in the queue and never be written.
+            try {
+                commit(batch);
+            } catch (IOException | RuntimeException e) {
+                System.out.println(
+                    "Leaderboard write failed: " + e.getMessage()
+                );
+            }
+            batch.clear();
+        }
+    }
+
+    // Appends a batch of results to the log with a single write, then
+    // applies it to the index. A failed write is cut off the log so that
+    // no partial record is left in front of the next batch.
+    private void commit(List<GameRecord> batch) throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(bytes);
+        for (GameRecord record : batch) {
+            data.writeUTF(record.player);
+            data.writeInt(record.shots);
+            data.writeInt(record.hits);
+            data.writeUTF(record.fleet);
+            data.writeLong(record.timestamp);
+        }
+
+        // Drop what is left of an earlier failed write, if any.
+        if (log.getChannel().size() != logLength) {
+            log.getChannel().truncate(logLength);
+        }
+        try {
+            bytes.writeTo(log);
+        } catch (IOException e) {
+            log.getChannel().truncate(logLength);
+            throw e;
+        }
+        logLength += bytes.size();
+
+        synchronized (this) {
+            for (GameRecord record : batch) {
+                applyOrReport(record);
+            }
+        }
+    }
+
+    // Rebuilds the index and the top-K from the log, truncating a record
+    // left incomplete by a crash so that new records can be appended.
+    // Returns the length of the valid part of the log.
+    private long replayLog() throws IOException {
+        if (!logFile.exists()) {
+            return 0;
+        }
+        long validLength = 0;
+        try (
+            CountingInputStream counter = new CountingInputStream(
+                new BufferedInputStream(new FileInputStream(logFile))
+            );
+            DataInputStream in = new DataInputStream(counter)
+        ) {
+            while (true) {
+                try {
+                    applyOrReport(
+                        new GameRecord(
+                            in.readUTF(),
+                            in.readInt(),
+                            in.readInt(),
+                            in.readUTF(),
+                            in.readLong()
+                        )
+                    );
+                    validLength = counter.count;
+                } catch (EOFException e) {
+                    break;
+                }
+            }
+        }
+        if (validLength < logFile.length()) {
+            try (
+                RandomAccessFile file = new RandomAccessFile(logFile, "rw")
+            ) {
+                file.setLength(validLength);
+            }
+        }
+        return validLength;
+    }
+
+    // Applies a result, reporting the first time the index is full. The
+    // result stays in the log either way.
+    private void applyOrReport(GameRecord record) {
+        try {
+            apply(record);
+        } catch (IllegalStateException e) {
+            if (!fullReported) {
+                fullReported = true;
+                System.out.println(
+                    "New players are no longer indexed: " + e.getMessage()
+                );
+            }
+        }
+    }
+
+    // Adds a result to the player's slot and updates the top-K. Throws if
+    // the player is new and the index cannot grow any further.
+    private void apply(GameRecord record) {
+        long hash = hash(record.player);
+        int offset = findSlot(hash) * SLOT_BYTES;
+        if (index.getLong(offset + HASH_OFFSET) != hash) {
+            if (players * 2 >= capacity) {
+                grow();
+                offset = findSlot(hash) * SLOT_BYTES;
+            }
+            index.putLong(offset + HASH_OFFSET, hash);
+            index.putInt(offset + BEST_OFFSET, Integer.MAX_VALUE);
+            players++;
+        }
+        index.putInt(
+            offset + GAMES_OFFSET,
+            index.getInt(offset + GAMES_OFFSET) + 1
+        );
+        index.putInt(
+            offset + BEST_OFFSET,
+            Math.min(index.getInt(offset + BEST_OFFSET), record.shots)
+        );
+        index.putLong(
+            offset + SHOTS_OFFSET,
+            index.getLong(offset + SHOTS_OFFSET) + record.shots
+        );
+        index.putLong(
+            offset + HITS_OFFSET,
+            index.getLong(offset + HITS_OFFSET) + record.hits
+        );
+
+        // A player's entry only gets better (fewer shots, more games), so
+        // a player evicted from the top-K can never belong to it again
+        // without a new result.
+        PlayerStats stats = readStats(record.player, offset);
+        PlayerStats previous = topByName.remove(record.player);
+        if (previous != null) {
+            top.remove(previous);
+        }
+        top.add(stats);
+        topByName.put(record.player, stats);
+        if (top.size() > TOP_SIZE) {
+            topByName.remove(top.pollLast().player);
+        }
+    }
+
+    // Doubles the number of slots and rehashes every player.
+    private void grow() {
+        if (capacity >= capacityLimit) {
+            throw new IllegalStateException(
+                "Leaderboard index is full with " + players + " players"
+            );
+        }
+        // Allocate first so that a failure leaves the old index intact.
+        // Running out of direct memory (limited by -Xmx unless
+        // -XX:MaxDirectMemorySize is set) is reported like a full index.
+        ByteBuffer grown;
+        try {
+            grown = ByteBuffer.allocateDirect(
+                Math.multiplyExact(capacity * 2, SLOT_BYTES)
+            );
+        } catch (OutOfMemoryError e) {
+            capacityLimit = capacity;
+            throw new IllegalStateException(
+                "Leaderboard index cannot grow past " + players +
+                " players: " + e.getMessage()
+            );
+        }
+        ByteBuffer old = index;
+        int oldCapacity = capacity;
+        index = grown;
+        capacity *= 2;
+        for (int slot = 0; slot < oldCapacity; slot++) {
+            int from = slot * SLOT_BYTES;
+            long hash = old.getLong(from + HASH_OFFSET);
+            if (hash != 0) {
+                int to = findSlot(hash) * SLOT_BYTES;
+                for (int i = 0; i < SLOT_BYTES; i += 8) {
+                    index.putLong(to + i, old.getLong(from + i));
+                }
+            }
+        }
+    }
+
+    // Returns the slot holding the hash, or the empty slot where it belongs.
+    private int findSlot(long hash) {
+        int mask = capacity - 1;
+        int slot = (int) (hash ^ (hash >>> 32)) & mask;
+        while (true) {
+            long stored = index.getLong(slot * SLOT_BYTES + HASH_OFFSET);
+            if (stored == 0 || stored == hash) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private PlayerStats readStats(String player, int offset) {
+        return new PlayerStats(
+            player,
+            index.getInt(offset + GAMES_OFFSET),
+            index.getInt(offset + BEST_OFFSET),
+            index.getLong(offset + SHOTS_OFFSET),
+            index.getLong(offset + HITS_OFFSET)
+        );
+    }
+
+    // 64-bit FNV-1a hash of the player name, 0 is reserved for empty slots.
+    // Names are not stored in the index, two names with the same 64-bit
+    // hash would share their stats.
+    private static long hash(String player) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < player.length(); i++) {
+            hash ^= player.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash == 0 ? 1 : hash;
+    }
+
+    // Inner class to represent the aggregated stats of a player.
+    public static class PlayerStats {
+
+        final String player;
+        final int games;
+        final int bestShots;
+        final long totalShots;
+        final long totalHits;
+
+        PlayerStats(
+            String player,
+            int games,
+            int bestShots,
+            long totalShots,
+            long totalHits
+        ) {
+            this.player = player;
+            this.games = games;
+            this.bestShots = bestShots;
+            this.totalShots = totalShots;
+            this.totalHits = totalHits;
+        }
+
+        public double getAverageShots() {
+            return (double) totalShots / games;
+        }
+
+        public double getHitRatio() {
+            return totalShots == 0 ? 0 : (double) totalHits / totalShots;
+        }
+    }
+
+    // Inner class to represent the result of a single won game.
+    private static class GameRecord {
+
+        final String player;
+        final int shots;
+        final int hits;
+        final String fleet;
+        final long timestamp;
+
+        GameRecord(
+            String player,
+            int shots,
+            int hits,
+            String fleet,
+            long timestamp
+        ) {
+            this.player = player;
+            this.shots = shots;
+            this.hits = hits;
+            this.fleet = fleet;
+            this.timestamp = timestamp;
+        }
+    }
+
+    // Input stream that counts the bytes read, to find the last full record.
+    private static class CountingInputStream extends FilterInputStream {
+
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length)
+            throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+}
@@ -5,12 +5,14 @@ import java.util.*;
 public class Server {
 
     // Define the size of the game board.
-    private static final int BOARD_SIZE = 5;
+    static final int BOARD_SIZE = 5;
     // Define characters representing different states of the board.
     private static final char WATER = '~';
     private static final char SHIP = 'S';
     private static final char HIT = 'X';
     private static final char MISS = 'O';
+    // File where the results of completed games are stored.
+    private static final String LEADERBOARD_FILE = "leaderboard.dat";
 
     // The game board represented as a 2D array of characters.
     private final char[][] board;
@@ -21,9 +23,16 @@ public class Server {
 
     // Constructor to initialize the server with ship sizes.
     public Server(List<Integer> shipSizes) {
+        this(shipSizes, new Random());
+        printBoard();
+    }
+
+    // Constructor used by headless games (e.g. Tournament), places ships
+    // with the given random generator and does not print the board.
+    Server(List<Integer> shipSizes, Random random) {
         this.board = new char[BOARD_SIZE][BOARD_SIZE];
         this.ships = new ArrayList<>();
-        this.random = new Random();
+        this.random = random;
 
         initializeBoard();
         // Attempt to place ships on the board, throw exception if placement fails.
@@ -32,6 +41,16 @@ public class Server {
                 "Cannot place all ships on the board. Try with fewer or smaller ships."
             );
         }
+    }
+
+    // Starts a new game on the same board, reusing it instead of creating
+    // a new server instance. Throws if the ships cannot be placed.
+    private void reset(List<Integer> shipSizes) {
+        if (!placeShips(shipSizes)) {
+            throw new IllegalArgumentException(
+                "Cannot place all ships on the board. Try with fewer or smaller ships."
+            );
+        }
         printBoard();
     }
 
@@ -172,7 +191,7 @@ public class Server {
     }
 
     // Processes a shot fired at the given coordinates.
-    private ShotResult processShot(int row, int col) {
+    ShotResult processShot(int row, int col) {
         // Check if the coordinates are valid.
         if (row < 0 || row >= BOARD_SIZE || col < 0 || col >= BOARD_SIZE) {
             return new ShotResult("INVALID", null);
@@ -208,6 +227,18 @@ public class Server {
         return new ShotResult("MISS", null);
     }
 
+    // Returns the sizes of the ships on the board, e.g. "3,2,1".
+    private String getFleet() {
+        StringBuilder fleet = new StringBuilder();
+        for (Ship ship : ships) {
+            if (fleet.length() > 0) {
+                fleet.append(',');
+            }
+            fleet.append(ship.getSize());
+        }
+        return fleet.toString();
+    }
+
     // Checks if all ships have been sunk.
     private boolean allShipsSunk() {
         return ships.stream().allMatch(Ship::isSunk);
@@ -223,7 +254,7 @@ public class Server {
     }
 
     // Inner class to represent the result of a shot.
-    private static class ShotResult {
+    static class ShotResult {
 
         final String result;
         final Integer shipSize;
@@ -243,64 +274,142 @@ public class Server {
     @SuppressWarnings("CallToPrintStackTrace")
     public static void main(String[] args) {
         try (ServerSocket serverSocket = new ServerSocket(5000)) {
+            // Load the player statistics, pending results are written on exit.
+            Leaderboard leaderboard = new Leaderboard(
+                new File(LEADERBOARD_FILE)
+            );
+            Runtime.getRuntime().addShutdownHook(
+                new Thread(() -> {
+                    try {
+                        leaderboard.close();
+                    } catch (IOException e) {
+                        System.out.println(
+                            "Leaderboard close failed: " + e.getMessage()
+                        );
+                    }
+                })
+            );
             System.out.println(
                 "Naval Battle Server is running on port 5000..."
             );
 
             // Keep server running and waiting for clients.
             while (true) {
-                // Accept incoming client connections.
-                try (
-                    Socket clientSocket = serverSocket.accept();
-                    BufferedReader in = new BufferedReader(
-                        new InputStreamReader(clientSocket.getInputStream())
-                    );
-                    PrintWriter out = new PrintWriter(
-                        clientSocket.getOutputStream(),
-                        true
-                    )
+                // Accept incoming client connections, each one is served by
+                // its own thread so a long session does not block the others.
+                Socket clientSocket = serverSocket.accept();
+                new Thread(
+                    () -> handleClient(clientSocket, leaderboard),
+                    "client-" + clientSocket.getRemoteSocketAddress()
+                ).start();
+            }
+        } catch (IOException e) {
+            // Print error message and stack trace.
+            System.out.println("Server exception: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    // Serves every game of one client connection until the client leaves.
+    private static void handleClient(
+        Socket clientSocket,
+        Leaderboard leaderboard
+    ) {
+        try (
+            clientSocket;
+            BufferedReader in = new BufferedReader(
+                new InputStreamReader(clientSocket.getInputStream())
+            );
+            PrintWriter out = new PrintWriter(
+                clientSocket.getOutputStream(),
+                true
+            )
+        ) {
+            // Log client connection.
+            System.out.println(
+                "Player connected: " + clientSocket.getInetAddress()
+            );
+            out.println("WELCOME"); // Send welcome message to client.
+
+            // Players are known by their IP unless they send a name.
+            String player = defaultPlayerName(
+                clientSocket.getInetAddress()
+            );
+            String shipConfig = in.readLine();
+            Server gameServer = null;
+            boolean firstGame = true;
+            // Keep playing on the same connection as long as the
+            // client asks for new games.
+            while (true) {
+                // Handle the name and queries sent before each game.
+                while (shipConfig != null) {
+                    if (shipConfig.startsWith("PLAYER:")) {
+                        String name = shipConfig.substring(7).trim();
+                        if (isValidPlayerName(name)) {
+                            player = name;
+                            out.println("PLAYER:" + player);
+                        } else {
+                            out.println("INVALID");
+                        }
+                    } else if (!handleQuery(shipConfig, out, leaderboard)) {
+                        break;
+                    }
+                    shipConfig = in.readLine();
+                }
+                // After the first game only a new SHIPS: line keeps the
+                // connection open, anything else means the client left.
+                if (
+                    !firstGame &&
+                    (shipConfig == null || !shipConfig.startsWith("SHIPS:"))
                 ) {
-                    // Log client connection.
+                    break;
+                }
+                firstGame = false;
+                // Parse ship configuration from the client.
+                List<Integer> shipSizes;
+                try {
+                    shipSizes = parseShipConfig(shipConfig);
+                    if (gameServer == null) {
+                        // Create the server instance for the first game.
+                        gameServer = new Server(shipSizes);
+                    } else {
+                        // Reuse the board for the following games.
+                        gameServer.reset(shipSizes);
+                    }
+                } catch (IllegalArgumentException e) {
+                    // Send error message to the client if the ships are
+                    // invalid, the connection stays open for another try.
+                    out.println(
+                        "ERROR:Too many or too large ships for the board"
+                    );
                     System.out.println(
-                        "Player connected: " + clientSocket.getInetAddress()
+                        "Game creation failed: " + e.getMessage()
                     );
-                    out.println("WELCOME"); // Send welcome message to client.
-
-                    // Parse ship configuration from the client.
-                    String shipConfig = in.readLine();
-                    List<Integer> shipSizes;
-                    try {
-                        shipSizes = parseShipConfig(shipConfig);
-                        // Create new server instance for each game.
-                        Server gameServer = new Server(shipSizes);
-                        System.out.println(
-                            "New game started with ships: " + shipSizes
-                        );
-                        // Start the game loop.
-                        handleGameLoop(in, out, gameServer);
-                    } catch (IllegalArgumentException e) {
-                        // Send error message to the client if the ships are invalid.
-                        out.println(
-                            "ERROR:Too many or too large ships for the board"
-                        );
-                        System.out.println(
-                            "Game creation failed: " + e.getMessage()
-                        );
-                        continue;
-                    }
-
-                    System.out.println("Player disconnected");
+                    shipConfig = in.readLine();
+                    continue;
                 }
+                out.println("READY"); // Tell the client the game has started.
+                System.out.println(
+                    "New game started with ships: " + shipSizes
+                );
+                // Start the game loop.
+                shipConfig = handleGameLoop(
+                    in,
+                    out,
+                    gameServer,
+                    leaderboard,
+                    player
+                );
             }
+
+            System.out.println("Player disconnected");
         } catch (IOException e) {
-            // Print error message and stack trace.
-            System.out.println("Server exception: " + e.getMessage());
-            e.printStackTrace();
+            System.out.println("Connection error: " + e.getMessage());
         }
     }
 
     // Parses the ship configuration string from the client.
-    private static List<Integer> parseShipConfig(String shipConfig) {
+    static List<Integer> parseShipConfig(String shipConfig) {
         if (shipConfig != null && shipConfig.startsWith("SHIPS:")) {
             List<Integer> shipSizes = new ArrayList<>();
             String[] sizes = shipConfig.substring(6).split(",");
@@ -312,16 +421,112 @@ public class Server {
         return Arrays.asList(3, 2, 1); // Default configuration
     }
 
-    // Manages the main game loop for each client.
-    private static void handleGameLoop(
+    // Checks that a player name is safe to send back in responses.
+    private static boolean isValidPlayerName(String name) {
+        return (
+            !name.isEmpty() &&
+            name.length() <= 32 &&
+            name
+                .chars()
+                .allMatch(c ->
+                    Character.isLetterOrDigit(c) ||
+                    c == '_' ||
+                    c == '-' ||
+                    c == '.'
+                )
+        );
+    }
+
+    // Builds the name of a player who did not send one from its address.
+    // IPv6 addresses are written as plain hex so the name has no colons
+    // and passes isValidPlayerName.
+    private static String defaultPlayerName(InetAddress address) {
+        if (address instanceof Inet4Address) {
+            return address.getHostAddress();
+        }
+        StringBuilder name = new StringBuilder();
+        for (byte b : address.getAddress()) {
+            name.append(String.format("%02x", b));
+        }
+        return name.toString();
+    }
+
+    // Answers STATS:<player> and TOP:<n> queries, returns false if the
+    // input is not a query.
+    private static boolean handleQuery(
+        String input,
+        PrintWriter out,
+        Leaderboard leaderboard
+    ) {
+        if (input.startsWith("STATS:")) {
+            String player = input.substring(6).trim();
+            Leaderboard.PlayerStats stats = leaderboard.getStats(player);
+            if (stats == null) {
+                out.println("ERROR:Unknown player");
+            } else {
+                out.println(
+                    String.format(
+                        Locale.ROOT,
+                        "STATS:%s:%d:%d:%.2f:%.3f",
+                        stats.player,
+                        stats.games,
+                        stats.bestShots,
+                        stats.getAverageShots(),
+                        stats.getHitRatio()
+                    )
+                );
+            }
+            return true;
+        }
+        if (input.startsWith("TOP:")) {
+            try {
+                int n = Integer.parseInt(input.substring(4).trim());
+                if (n <= 0) {
+                    out.println("INVALID");
+                    return true;
+                }
+                StringBuilder response = new StringBuilder("TOP:");
+                for (Leaderboard.PlayerStats stats : leaderboard.getTop(n)) {
+                    if (response.length() > 4) {
+                        response.append(',');
+                    }
+                    response
+                        .append(stats.player)
+                        .append('=')
+                        .append(stats.bestShots);
+                }
+                out.println(response);
+            } catch (NumberFormatException e) {
+                out.println("INVALID");
+            }
+            return true;
+        }
+        return false;
+    }
+
+    // Manages the main game loop for each client. Returns the line sent
+    // after the game (e.g. a new SHIPS: line), or null if the client left.
+    private static String handleGameLoop(
         BufferedReader in,
         PrintWriter out,
-        Server gameServer
+        Server gameServer,
+        Leaderboard leaderboard,
+        String player
     ) throws IOException {
         String input;
+        int shots = 0;
+        int hits = 0;
         while (
             (input = in.readLine()) != null && !input.equalsIgnoreCase("quit")
         ) {
+            // A new ship configuration restarts the game on this connection.
+            if (input.startsWith("SHIPS:")) {
+                return input;
+            }
+            if (handleQuery(input, out, leaderboard)) {
+                continue;
+            }
+
             try {
                 String[] coordinates = input.split(",");
                 int row = Integer.parseInt(coordinates[0].trim());
@@ -333,13 +538,32 @@ public class Server {
                     "Shot at (" + row + "," + col + "): " + result
                 );
 
+                if (
+                    !result.result.equals("INVALID") &&
+                    !result.result.equals("ALREADY_SHOT")
+                ) {
+                    shots++;
+                    if (!result.result.equals("MISS")) {
+                        hits++;
+                    }
+                }
+
                 if (result.result.equals("GAME_OVER")) {
-                    break;
+                    // Store the result off the game loop, then hand the next
+                    // line back so the client can start another game or leave.
+                    leaderboard.record(
+                        player,
+                        shots,
+                        hits,
+                        gameServer.getFleet()
+                    );
+                    return in.readLine();
                 }
             } catch (NumberFormatException e) {
                 out.println("INVALID"); // Send invalid message if the input format is invalid
                 System.out.println("Invalid input received: " + input);
             }
         }
+        return null;
     }
 }
@@ -0,0 +1,18 @@
+import java.util.*;
+
+// A targeting strategy that can be plugged into the Tournament runner.
+// Cells are identified by their index: row * boardSize + col.
+public interface ShootingStrategy {
+
+    // Returns the name used in the tournament report.
+    String getName();
+
+    // Prepares the strategy for a new game on a boardSize x boardSize board.
+    void reset(int boardSize, Random random);
+
+    // Returns the index of the next cell to shoot at.
+    int nextShot();
+
+    // Receives the server response (e.g. "HIT", "SUNK:3") for the last shot.
+    void onResult(int row, int col, String result);
+}
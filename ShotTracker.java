@@ -0,0 +1,162 @@
+import java.util.*;
+
+public class ShotTracker {
+
+    // Number of bits stored in each word of the bitset.
+    private static final int WORD_BITS = 64;
+
+    // Dimensions of the tracked board.
+    private final int rows;
+    private final int cols;
+    // One bit per cell, set when the cell has been shot at.
+    private final long[] words;
+    // Number of cells shot at so far.
+    private int count;
+
+    // Constructor to create an empty tracker for a rows x cols board.
+    public ShotTracker(int rows, int cols) {
+        if (rows <= 0 || cols <= 0) {
+            throw new IllegalArgumentException(
+                "Board dimensions must be positive"
+            );
+        }
+        // Cell indexes are ints, so the board must fit in an int.
+        long cells = (long) rows * cols;
+        if (cells > Integer.MAX_VALUE - (WORD_BITS - 1)) {
+            throw new IllegalArgumentException(
+                "Board of " + rows + "x" + cols + " is too large to track"
+            );
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.words = new long[(int) ((cells + WORD_BITS - 1) / WORD_BITS)];
+        this.count = 0;
+    }
+
+    // Converts a position to its bit index, throws if out of the board.
+    private int indexOf(int row, int col) {
+        if (row < 0 || row >= rows || col < 0 || col >= cols) {
+            throw new IndexOutOfBoundsException(
+                "Position (" + row + "," + col + ") is outside the board"
+            );
+        }
+        return row * cols + col;
+    }
+
+    // Checks if the given position has already been shot at.
+    public boolean hasShot(int row, int col) {
+        int index = indexOf(row, col);
+        return (words[index / WORD_BITS] & (1L << index)) != 0;
+    }
+
+    // Records a shot, returns false if the position was already shot at.
+    public boolean record(int row, int col) {
+        int index = indexOf(row, col);
+        long mask = 1L << index;
+        if ((words[index / WORD_BITS] & mask) != 0) {
+            return false;
+        }
+        words[index / WORD_BITS] |= mask;
+        count++;
+        return true;
+    }
+
+    // Returns the number of positions shot at so far.
+    public int getShotCount() {
+        return count;
+    }
+
+    // Returns the number of positions not yet shot at.
+    public int getUntriedCount() {
+        return rows * cols - count;
+    }
+
+    // Returns the index (row * cols + col) of the first untried cell at or
+    // after fromIndex, or -1 if every remaining cell has been shot at.
+    public int nextUntried(int fromIndex) {
+        int size = rows * cols;
+        if (fromIndex < 0) {
+            fromIndex = 0;
+        }
+        if (fromIndex >= size) {
+            return -1;
+        }
+        int wordIndex = fromIndex / WORD_BITS;
+        long word = ~words[wordIndex] & (-1L << fromIndex);
+        while (true) {
+            if (word != 0) {
+                int index =
+                    wordIndex * WORD_BITS + Long.numberOfTrailingZeros(word);
+                return index < size ? index : -1;
+            }
+            if (++wordIndex == words.length) {
+                return -1;
+            }
+            word = ~words[wordIndex];
+        }
+    }
+
+    // Clears all recorded shots so the tracker can be reused for a new game.
+    public void clear() {
+        Arrays.fill(words, 0L);
+        count = 0;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    // Serializes the tracker as "rows,cols:hexword,hexword,..." so a session
+    // can be saved and resumed later.
+    public String encode() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(rows).append(',').append(cols).append(':');
+        for (int i = 0; i < words.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(Long.toHexString(words[i]));
+        }
+        return sb.toString();
+    }
+
+    // Rebuilds a tracker from a string produced by encode().
+    public static ShotTracker decode(String encoded) {
+        try {
+            String[] parts = encoded.split(":", 2);
+            String[] dimensions = parts[0].split(",");
+            ShotTracker tracker = new ShotTracker(
+                Integer.parseInt(dimensions[0].trim()),
+                Integer.parseInt(dimensions[1].trim())
+            );
+            String[] hexWords = parts[1].split(",");
+            if (hexWords.length != tracker.words.length) {
+                throw new IllegalArgumentException(
+                    "Wrong number of words for board size"
+                );
+            }
+            for (int i = 0; i < hexWords.length; i++) {
+                tracker.words[i] = Long.parseUnsignedLong(hexWords[i], 16);
+                tracker.count += Long.bitCount(tracker.words[i]);
+            }
+            // Drop any bits beyond the last cell of the board.
+            int tailBits = (tracker.rows * tracker.cols) % WORD_BITS;
+            if (tailBits != 0) {
+                int last = tracker.words.length - 1;
+                tracker.count -= Long.bitCount(tracker.words[last]);
+                tracker.words[last] &= (1L << tailBits) - 1;
+                tracker.count += Long.bitCount(tracker.words[last]);
+            }
+            return tracker;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException(
+                "Invalid shot tracker encoding: " + encoded,
+                e
+            );
+        }
+    }
+}
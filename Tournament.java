@@ -0,0 +1,391 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+public class Tournament {
+
+    // Number of games a single task plays before it stops splitting.
+    private static final int GAMES_PER_TASK = 1024;
+    // Number of seeds tried before a fleet is rejected as unplaceable.
+    private static final int PLACEMENT_CHECKS = 100;
+    // Returned by playGame when the ships cannot be placed for a seed.
+    private static final int UNPLACEABLE = -2;
+    // A strategy that needs more shots than this is considered stuck.
+    private static final int MAX_SHOTS =
+        Server.BOARD_SIZE * Server.BOARD_SIZE * 2;
+
+    // Strategy factories, one instance is created per task and reused.
+    private final List<Supplier<ShootingStrategy>> strategies;
+    // Ship sizes used for every layout.
+    private final List<Integer> shipSizes;
+
+    // Constructor to initialize the tournament with strategies and ships.
+    public Tournament(
+        List<Supplier<ShootingStrategy>> strategies,
+        List<Integer> shipSizes
+    ) {
+        this.strategies = strategies;
+        this.shipSizes = shipSizes;
+        // Fail fast if the ships cannot fit on the board for any seed.
+        for (int seed = 0; ; seed++) {
+            try {
+                new Server(new ArrayList<>(shipSizes), new Random(seed));
+                break;
+            } catch (IllegalArgumentException e) {
+                if (seed + 1 == PLACEMENT_CHECKS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    // Plays every strategy against the layouts seeded from firstSeed up to
+    // firstSeed + games, spread across all cores.
+    public Result run(long firstSeed, long games) {
+        return ForkJoinPool.commonPool().invoke(
+            new GamesTask(firstSeed, firstSeed + games)
+        );
+    }
+
+    // Plays one game on the layout generated from seed, returns the number
+    // of shots needed to win, -1 if the strategy got stuck or UNPLACEABLE
+    // if the ships cannot be placed with this seed.
+    private int playGame(long seed, ShootingStrategy strategy) {
+        Server game;
+        try {
+            game = new Server(new ArrayList<>(shipSizes), new Random(seed));
+        } catch (IllegalArgumentException e) {
+            return UNPLACEABLE;
+        }
+        strategy.reset(Server.BOARD_SIZE, new Random(~seed));
+
+        for (int shots = 1; shots <= MAX_SHOTS; shots++) {
+            int cell = strategy.nextShot();
+            int row = cell / Server.BOARD_SIZE;
+            int col = cell % Server.BOARD_SIZE;
+            Server.ShotResult result = game.processShot(row, col);
+            if (result.result.equals("GAME_OVER")) {
+                return shots;
+            }
+            strategy.onResult(row, col, result.toString());
+        }
+        return -1;
+    }
+
+    // Fork/join task playing a range of seeds, split until small enough.
+    private class GamesTask extends RecursiveTask<Result> {
+
+        private static final long serialVersionUID = 1L;
+
+        final long fromSeed;
+        final long toSeed;
+
+        GamesTask(long fromSeed, long toSeed) {
+            this.fromSeed = fromSeed;
+            this.toSeed = toSeed;
+        }
+
+        @Override
+        protected Result compute() {
+            if (toSeed - fromSeed > GAMES_PER_TASK) {
+                long middle = fromSeed + (toSeed - fromSeed) / 2;
+                GamesTask left = new GamesTask(fromSeed, middle);
+                left.fork();
+                Result result = new GamesTask(middle, toSeed).compute();
+                result.merge(left.join());
+                return result;
+            }
+
+            Result result = new Result(strategies.size());
+            for (int s = 0; s < strategies.size(); s++) {
+                ShootingStrategy strategy = strategies.get(s).get();
+                result.names[s] = strategy.getName();
+                for (long seed = fromSeed; seed < toSeed; seed++) {
+                    int shots = playGame(seed, strategy);
+                    if (shots != UNPLACEABLE) {
+                        result.record(s, shots);
+                    } else if (s == 0) {
+                        // Every strategy sees the same layouts, count once.
+                        result.unplaceable++;
+                    }
+                }
+            }
+            return result;
+        }
+    }
+
+    // Shots-to-win histograms for each strategy.
+    public static class Result {
+
+        final String[] names;
+        final long[][] histograms;
+        final long[] failures;
+        long unplaceable;
+
+        Result(int strategyCount) {
+            this.names = new String[strategyCount];
+            this.histograms = new long[strategyCount][MAX_SHOTS + 1];
+            this.failures = new long[strategyCount];
+        }
+
+        void record(int strategy, int shots) {
+            if (shots < 0) {
+                failures[strategy]++;
+            } else {
+                histograms[strategy][shots]++;
+            }
+        }
+
+        void merge(Result other) {
+            for (int s = 0; s < names.length; s++) {
+                for (int i = 0; i <= MAX_SHOTS; i++) {
+                    histograms[s][i] += other.histograms[s][i];
+                }
+                failures[s] += other.failures[s];
+            }
+            unplaceable += other.unplaceable;
+        }
+
+        // Returns the number of games the strategy won.
+        public long getWins(int strategy) {
+            long wins = 0;
+            for (long count : histograms[strategy]) {
+                wins += count;
+            }
+            return wins;
+        }
+
+        // Returns the mean number of shots to win.
+        public double getMean(int strategy) {
+            long total = 0;
+            for (int i = 0; i <= MAX_SHOTS; i++) {
+                total += i * histograms[strategy][i];
+            }
+            long wins = getWins(strategy);
+            return wins == 0 ? Double.NaN : (double) total / wins;
+        }
+
+        // Returns the number of shots within which the given percentage of
+        // won games were finished.
+        public int getPercentile(int strategy, double percent) {
+            long wins = getWins(strategy);
+            long rank = (long) Math.ceil(wins * percent / 100.0);
+            long seen = 0;
+            for (int i = 0; i <= MAX_SHOTS; i++) {
+                seen += histograms[strategy][i];
+                if (seen >= rank && seen > 0) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        // Prints the strategies ranked by mean shots to win.
+        public void printReport() {
+            Integer[] order = new Integer[names.length];
+            for (int s = 0; s < order.length; s++) {
+                order[s] = s;
+            }
+            Arrays.sort(order, Comparator.comparingDouble(this::getMean));
+
+            System.out.printf(
+                "%-4s %-12s %10s %8s %5s %5s %5s %5s %8s%n",
+                "Rank",
+                "Strategy",
+                "Wins",
+                "Mean",
+                "p50",
+                "p90",
+                "p99",
+                "Max",
+                "Stuck"
+            );
+            for (int rank = 0; rank < order.length; rank++) {
+                int s = order[rank];
+                System.out.printf(
+                    "%-4d %-12s %10d %8.3f %5d %5d %5d %5d %8d%n",
+                    rank + 1,
+                    names[s],
+                    getWins(s),
+                    getMean(s),
+                    getPercentile(s, 50),
+                    getPercentile(s, 90),
+                    getPercentile(s, 99),
+                    getPercentile(s, 100),
+                    failures[s]
+                );
+            }
+            if (unplaceable > 0) {
+                System.out.println(
+                    "Skipped " + unplaceable + " layouts where the ships " +
+                    "could not be placed"
+                );
+            }
+        }
+    }
+
+    // Shoots at the cells in order, row by row.
+    public static class SequentialStrategy implements ShootingStrategy {
+
+        private int next;
+
+        @Override
+        public String getName() {
+            return "sequential";
+        }
+
+        @Override
+        public void reset(int boardSize, Random random) {
+            next = 0;
+        }
+
+        @Override
+        public int nextShot() {
+            return next++;
+        }
+
+        @Override
+        public void onResult(int row, int col, String result) {}
+    }
+
+    // Shoots at the cells in a random order, never twice at the same cell.
+    public static class RandomStrategy implements ShootingStrategy {
+
+        private int[] order = new int[0];
+        private int next;
+
+        @Override
+        public String getName() {
+            return "random";
+        }
+
+        @Override
+        public void reset(int boardSize, Random random) {
+            order = shuffledCells(order, boardSize, random);
+            next = 0;
+        }
+
+        @Override
+        public int nextShot() {
+            return order[next++];
+        }
+
+        @Override
+        public void onResult(int row, int col, String result) {}
+    }
+
+    // Shoots randomly until a ship is hit, then targets the neighbouring
+    // cells until it is sunk.
+    public static class HuntTargetStrategy implements ShootingStrategy {
+
+        private int boardSize;
+        private int[] order = new int[0];
+        private int next;
+        private ShotTracker shots;
+        private final Deque<Integer> targets = new ArrayDeque<>();
+
+        @Override
+        public String getName() {
+            return "hunt-target";
+        }
+
+        @Override
+        public void reset(int boardSize, Random random) {
+            if (shots == null || this.boardSize != boardSize) {
+                shots = new ShotTracker(boardSize, boardSize);
+            } else {
+                shots.clear();
+            }
+            this.boardSize = boardSize;
+            order = shuffledCells(order, boardSize, random);
+            next = 0;
+            targets.clear();
+        }
+
+        @Override
+        public int nextShot() {
+            int cell;
+            if (!targets.isEmpty()) {
+                cell = targets.pop();
+            } else {
+                // Skip the cells already shot while targeting.
+                do {
+                    cell = order[next++];
+                } while (
+                    shots.hasShot(cell / boardSize, cell % boardSize)
+                );
+            }
+            shots.record(cell / boardSize, cell % boardSize);
+            return cell;
+        }
+
+        @Override
+        public void onResult(int row, int col, String result) {
+            if (result.equals("HIT")) {
+                addTarget(row - 1, col);
+                addTarget(row + 1, col);
+                addTarget(row, col - 1);
+                addTarget(row, col + 1);
+            } else if (result.startsWith("SUNK")) {
+                // Ships never touch, so the remaining targets are water.
+                targets.clear();
+            }
+        }
+
+        private void addTarget(int row, int col) {
+            if (
+                row >= 0 && row < boardSize && col >= 0 && col < boardSize &&
+                !shots.hasShot(row, col)
+            ) {
+                targets.push(row * boardSize + col);
+            }
+        }
+    }
+
+    // Fills order (reallocated if the size changed) with a random
+    // permutation of all the cell indexes.
+    private static int[] shuffledCells(int[] order, int boardSize, Random random) {
+        int cells = boardSize * boardSize;
+        if (order.length != cells) {
+            order = new int[cells];
+        }
+        for (int i = 0; i < cells; i++) {
+            order[i] = i;
+        }
+        for (int i = cells - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+        return order;
+    }
+
+    // Main method to run a tournament: [games] [ship sizes, e.g. 3,2,1].
+    public static void main(String[] args) {
+        List<Supplier<ShootingStrategy>> strategies = List.of(
+            SequentialStrategy::new,
+            RandomStrategy::new,
+            HuntTargetStrategy::new
+        );
+
+        try {
+            long games = args.length > 0 ? Long.parseLong(args[0]) : 100_000;
+            List<Integer> shipSizes = Server.parseShipConfig(
+                args.length > 1 ? "SHIPS:" + args[1] : null
+            );
+            Tournament tournament = new Tournament(strategies, shipSizes);
+            System.out.println(
+                "Playing " + games + " layouts with ships " + shipSizes +
+                " on " + ForkJoinPool.getCommonPoolParallelism() + " threads..."
+            );
+            long start = System.nanoTime();
+            Result result = tournament.run(0, games);
+            long elapsed = (System.nanoTime() - start) / 1_000_000;
+            result.printReport();
+            System.out.println("Finished in " + elapsed + " ms");
+        } catch (IllegalArgumentException e) {
+            System.out.println("Tournament failed: " + e.getMessage());
+        }
+    }
+}